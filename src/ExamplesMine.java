@@ -1,5 +1,12 @@
+import javalib.worldimages.Posn;
 import tester.Tester;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Stack;
+
 
 /**
  * Examples class to run the game.
@@ -21,7 +28,450 @@ class ExamplesMine {
         // DON'T CHANGE THE FOLLOWING:
         MineController tv = new MineController(width, height, bombs);
 
-        // begin the world.
-        tv.bigBang(width * MineView.TILE_SIZE, height * MineView.TILE_SIZE, 0.1);
+        // begin the world: the grid, and the status row for hints under it.
+        tv.bigBang(width * MineView.TILE_SIZE, height * MineView.TILE_SIZE + MineView.STATUS_HEIGHT, 0.1);
+    }
+
+    // checks the opening index against a Stack-based fill.
+    void testOpeningIndex(Tester t) {
+        // a large, sparse board.
+        int width = 200;
+        int height = 200;
+        MineModel model = new MineModel(width, height, 2000, true);
+
+        // open every zero-region once, from its first tile.
+        boolean[] opened = new boolean[width * height];
+        for (int y = 0; y < height; y += 1) {
+            for (int x = 0; x < width; x += 1) {
+                if (opened[y * width + x] || model.isBombAt(x, y) || model.numNeighboringBombs(x, y) > 0) {
+                    continue;
+                }
+
+                ArrayList<Integer> fromIndex = new ArrayList<>(model.openingAt(x, y));
+                ArrayList<Integer> fromStack = this.stackFill(model, width, height, x, y);
+
+                for (int tile : fromStack) {
+                    opened[tile] = true;
+                }
+
+                Collections.sort(fromIndex);
+                Collections.sort(fromStack);
+                t.checkExpect(fromIndex, fromStack);
+            }
+        }
+    }
+
+    // times MineController opening every zero-region of a large, sparse board, with floodFill
+    // and with bulkFill. a benchmark, not a test: run through main, and reports both times.
+    void timeOpeningIndex() {
+        int width = 300;
+        int height = 300;
+        int bombs = 1800;
+
+        // the same board for both, from a fixed seed.
+        Random random = new Random(26);
+        boolean[] isBomb = new boolean[width * height];
+        for (int placed = 0; placed < bombs; ) {
+            int tile = random.nextInt(width * height);
+            if (!isBomb[tile]) {
+                isBomb[tile] = true;
+                placed += 1;
+            }
+        }
+        String[] rows = new String[height];
+        for (int y = 0; y < height; y += 1) {
+            StringBuilder row = new StringBuilder();
+            for (int x = 0; x < width; x += 1) {
+                row.append(isBomb[y * width + x] ? "o " : "x ");
+            }
+            rows[y] = row.toString();
+        }
+
+        // the best of a few runs each, on a fresh game every time.
+        long bestFlood = Long.MAX_VALUE;
+        long bestBulk = Long.MAX_VALUE;
+        for (int run = 0; run < 3; run += 1) {
+            bestFlood = Math.min(bestFlood, this.timeOpenAll(rows, width, height, bombs, false));
+            bestBulk = Math.min(bestBulk, this.timeOpenAll(rows, width, height, bombs, true));
+        }
+        System.out.println("floodFill: " + bestFlood / 1000000 + " ms, bulkFill: " + bestBulk / 1000000 + " ms");
+    }
+
+    // returns the nanoseconds a new MineController on the provided board takes to open every zero tile.
+    long timeOpenAll(String[] rows, int width, int height, int bombs, boolean useOpeningIndex) {
+        MineModel model = new MineModel(useOpeningIndex, rows);
+        MineController controller = new MineController(model, width, height, bombs);
+
+        long start = System.nanoTime();
+        for (int y = 0; y < height; y += 1) {
+            for (int x = 0; x < width; x += 1) {
+                if (!model.isBombAt(x, y) && model.numNeighboringBombs(x, y) == 0 && !model.hasBeenClicked(x, y)) {
+                    Posn pixel = new Posn(x * MineView.TILE_SIZE, y * MineView.TILE_SIZE);
+                    controller.onMouseClicked(pixel, "LeftButton");
+                }
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    // runs the benchmarks.
+    public static void main(String[] args) {
+        new ExamplesMine().timeOpeningIndex();
+    }
+
+    // the tiles MineController's floodFill would reveal from (startX, startY), without drawing.
+    ArrayList<Integer> stackFill(MineModel model, int width, int height, int startX, int startY) {
+        ArrayList<Integer> revealed = new ArrayList<>();
+        boolean[] seen = new boolean[width * height];
+        Stack<Integer> toFill = new Stack<>();
+        toFill.push(startY * width + startX);
+
+        while (!toFill.isEmpty()) {
+            int curr = toFill.pop();
+            int x = curr % width;
+            int y = curr / width;
+
+            if (model.onBoard(x, y) && !seen[curr] && !model.isBombAt(x, y)) {
+                seen[curr] = true;
+                revealed.add(curr);
+                if (model.numNeighboringBombs(x, y) == 0) {
+                    for (int dy = -1; dy <= 1; dy += 1) {
+                        for (int dx = -1; dx <= 1; dx += 1) {
+                            if (model.onBoard(x + dx, y + dy)) {
+                                toFill.push((y + dy) * width + (x + dx));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return revealed;
+    }
+
+    // a fixed board for the hint tests, with some safe tiles revealed (. hidden, * hidden bomb):
+    //   . . . . 0 0 . *
+    //   * * * 2 . . . .
+    //   . 4 * 2 0 . 1 .
+    //   0 . 1 1 . . 1 *
+    MineModel hintModel() {
+        MineModel model = new MineModel(
+                "x x x x x x x o",
+                "o o o x x x x x",
+                "x x o x x x x x",
+                "x x x x x x x o");
+        int[][] revealed = { {4, 0}, {5, 0}, {3, 1}, {1, 2}, {3, 2}, {4, 2}, {6, 2}, {0, 3}, {2, 3}, {3, 3}, {6, 3} };
+        for (int[] tile : revealed) {
+            model.tileClick(tile[0], tile[1]);
+        }
+        return model;
+    }
+
+    // checks what the hints say about forced and unforced tiles.
+    void testHintKinds(Tester t) {
+        MineHint hint = new MineHint(this.hintModel(), 8, 4, 6);
+
+        MineHint.Explanation safe = this.awaitHint(t, hint, 2, 0);
+        if (safe != null) {
+            t.checkExpect(safe.kind, MineHint.Kind.SAFE);
+            t.checkInexact(safe.probability, 0.0, 0.000001);
+            t.checkExpect(safe.usesBombCount, false);
+        }
+
+        MineHint.Explanation bomb = this.awaitHint(t, hint, 0, 1);
+        if (bomb != null) {
+            t.checkExpect(bomb.kind, MineHint.Kind.BOMB);
+            t.checkInexact(bomb.probability, 1.0, 0.000001);
+        }
+
+        MineHint.Explanation guess = this.awaitHint(t, hint, 0, 0);
+        if (guess != null) {
+            t.checkExpect(guess.kind, MineHint.Kind.GUESS);
+            t.checkExpect(guess.reasons.isEmpty(), true);
+            t.checkExpect(guess.approximate, false);
+        }
+
+        // revealed tiles have nothing to explain.
+        t.checkExpect(hint.explain(3, 1), null);
+    }
+
+    // checks every hidden tile's chance of a bomb against counting every possible board.
+    void testHintProbabilities(Tester t) {
+        MineModel model = this.hintModel();
+        MineHint hint = new MineHint(model, 8, 4, 6);
+        int[] visible = model.visibleSnapshot();
+
+        // every way to place the 6 bombs on the hidden tiles that fits the numbers.
+        ArrayList<Integer> hidden = new ArrayList<>();
+        for (int i = 0; i < visible.length; i += 1) {
+            if (visible[i] == -1) {
+                hidden.add(i);
+            }
+        }
+        double[] bombsAt = new double[visible.length];
+        double total = this.countBoards(visible, 8, hidden, 0, 6, new boolean[visible.length], bombsAt);
+
+        for (int tile : hidden) {
+            MineHint.Explanation explanation = this.awaitHint(t, hint, tile % 8, tile / 8);
+            if (explanation != null) {
+                t.checkInexact(explanation.probability, bombsAt[tile] / total, 0.000001);
+            }
+        }
+    }
+
+    // checks the reason for a forced tile is as small as any set of numbers forcing it.
+    void testHintReason(Tester t) {
+        MineModel model = this.hintModel();
+        MineHint hint = new MineHint(model, 8, 4, 6);
+        int[] visible = model.visibleSnapshot();
+        int target = 0 * 8 + 2;
+
+        ArrayList<Integer> numbers = new ArrayList<>();
+        for (int i = 0; i < visible.length; i += 1) {
+            if (visible[i] != -1 && !this.hiddenAround(visible, 8, i).isEmpty()) {
+                numbers.add(i);
+            }
+        }
+        // the smallest # of numbers that force the target safe, by trying every set of them.
+        int smallest = numbers.size() + 1;
+        for (int set = 1; set < (1 << numbers.size()); set += 1) {
+            ArrayList<Integer> chosen = new ArrayList<>();
+            for (int j = 0; j < numbers.size(); j += 1) {
+                if ((set >> j & 1) == 1) {
+                    chosen.add(numbers.get(j));
+                }
+            }
+            if (chosen.size() < smallest && this.forces(visible, 8, chosen, target)) {
+                smallest = chosen.size();
+            }
+        }
+
+        t.checkExpect(smallest, 3);
+
+        MineHint.Explanation explanation = this.awaitHint(t, hint, 2, 0);
+        if (explanation != null) {
+            ArrayList<Integer> reasons = new ArrayList<>();
+            for (MineHint.Tile reason : explanation.reasons) {
+                reasons.add(reason.y * 8 + reason.x);
+            }
+            t.checkExpect(reasons.size(), smallest);
+            t.checkExpect(explanation.reasonTruncated, false);
+            t.checkExpect(this.forces(visible, 8, reasons, target), true);
+        }
+    }
+
+    // checks a reveal drops the explanations it affects, and only those.
+    void testHintInvalidate(Tester t) {
+        MineModel model = this.hintModel();
+        MineHint hint = new MineHint(model, 8, 4, 6);
+        MineHint.Explanation safe = this.awaitHint(t, hint, 2, 0);
+        this.awaitHint(t, hint, 0, 0);
+
+        // far from the safe tile's reason: it is kept, but every guess changes.
+        model.tileClick(6, 0);
+        hint.invalidate(6, 0);
+        t.checkExpect(hint.explain(2, 0) == safe, true);
+        t.checkExpect(hint.explain(0, 0), null);
+
+        // next to it: it is dropped.
+        model.tileClick(3, 0);
+        hint.invalidate(3, 0);
+        t.checkExpect(hint.explain(2, 0), null);
+    }
+
+    // checks a component split into pieces, as one too big to count is, still gets what
+    // the numbers near its tiles force, and never calls a tile forced when it isn't.
+    void testHintSplit(Tester t) {
+        MineModel model = this.hintModel();
+        // nothing is counted exactly, and every piece is a single tile.
+        MineHint hint = new MineHint(model, 8, 4, 6, 0, 1);
+        int[] visible = model.visibleSnapshot();
+
+        ArrayList<Integer> hidden = new ArrayList<>();
+        for (int i = 0; i < visible.length; i += 1) {
+            if (visible[i] == -1) {
+                hidden.add(i);
+            }
+        }
+        double[] bombsAt = new double[visible.length];
+        double total = this.countBoards(visible, 8, hidden, 0, 6, new boolean[visible.length], bombsAt);
+
+        for (int tile : hidden) {
+            MineHint.Explanation explanation = this.awaitHint(t, hint, tile % 8, tile / 8);
+            if (explanation != null) {
+                t.checkExpect(explanation.approximate, true);
+                if (explanation.kind == MineHint.Kind.SAFE) {
+                    t.checkExpect(bombsAt[tile], 0.0);
+                }
+                else if (explanation.kind == MineHint.Kind.BOMB) {
+                    t.checkExpect(bombsAt[tile], total);
+                }
+            }
+        }
+
+        // a single tile's piece knows nothing, but the numbers near it do.
+        MineHint.Explanation safe = this.awaitHint(t, hint, 2, 0);
+        if (safe != null) {
+            t.checkExpect(safe.kind, MineHint.Kind.SAFE);
+            t.checkInexact(safe.probability, 0.0, 0.000001);
+            t.checkExpect(safe.reasons.size(), 3);
+        }
+    }
+
+    // checks a new game is solved from its own numbers, not from the last game's.
+    void testHintReset(Tester t) {
+        MineModel model = new MineModel(
+                "x o x",
+                "o o x",
+                "x x x");
+        MineHint hint = new MineHint(model, 3, 3, 3);
+        model.tileClick(0, 0);
+
+        MineHint.Explanation bomb = this.awaitHint(t, hint, 1, 1);
+        if (bomb != null) {
+            t.checkExpect(bomb.kind, MineHint.Kind.BOMB);
+        }
+
+        // the next game, started as MineController does: the same tile shows a 2 this time.
+        model.fixBombs(
+                "x o x",
+                "o x x",
+                "x x o");
+        model.resetBoard();
+        hint.reset();
+        model.tileClick(0, 0);
+
+        int[] visible = model.visibleSnapshot();
+        ArrayList<Integer> hidden = new ArrayList<>();
+        for (int i = 1; i < visible.length; i += 1) {
+            hidden.add(i);
+        }
+        double[] bombsAt = new double[visible.length];
+        double total = this.countBoards(visible, 3, hidden, 0, 3, new boolean[visible.length], bombsAt);
+
+        MineHint.Explanation guess = this.awaitHint(t, hint, 1, 1);
+        if (guess != null) {
+            t.checkExpect(guess.kind, MineHint.Kind.GUESS);
+            t.checkInexact(guess.probability, bombsAt[1 * 3 + 1] / total, 0.000001);
+            t.checkInexact(guess.probability, 2.0 / 3, 0.000001);
+        }
+    }
+
+    // waits for the hint engine to explain a tile, reasons included.
+    // if it takes over 10 seconds, fails through t and returns null.
+    MineHint.Explanation awaitHint(Tester t, MineHint hint, int x, int y) {
+        long deadline = System.currentTimeMillis() + 10000;
+        MineHint.Explanation explanation = hint.explain(x, y);
+        while (!this.isSettled(explanation) && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(1);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            explanation = hint.explain(x, y);
+        }
+
+        if (!t.checkExpect(this.isSettled(explanation), true, "hint for (" + x + ", " + y + ") in time")) {
+            return null;
+        }
+        return explanation;
+    }
+
+    // returns if an explanation is there, with its reasons if it is forced by the numbers alone.
+    boolean isSettled(MineHint.Explanation explanation) {
+        return explanation != null && (explanation.kind == MineHint.Kind.GUESS || explanation.usesBombCount
+                || explanation.reasonTruncated || !explanation.reasons.isEmpty());
+    }
+
+    // counts the ways to place the bombs left on the hidden tiles from pos on that fit the numbers,
+    // adding to bombsAt the ways with a bomb on every tile.
+    double countBoards(int[] visible, int width, ArrayList<Integer> hidden, int pos, int bombsLeft,
+                       boolean[] bomb, double[] bombsAt) {
+        if (pos == hidden.size()) {
+            if (bombsLeft > 0) {
+                return 0;
+            }
+            for (int i = 0; i < visible.length; i += 1) {
+                if (visible[i] != -1 && this.bombsAround(bomb, width, visible.length / width, i) != visible[i]) {
+                    return 0;
+                }
+            }
+            for (int tile : hidden) {
+                if (bomb[tile]) {
+                    bombsAt[tile] += 1;
+                }
+            }
+            return 1;
+        }
+
+        double ways = this.countBoards(visible, width, hidden, pos + 1, bombsLeft, bomb, bombsAt);
+        if (bombsLeft > 0) {
+            bomb[hidden.get(pos)] = true;
+            ways += this.countBoards(visible, width, hidden, pos + 1, bombsLeft - 1, bomb, bombsAt);
+            bomb[hidden.get(pos)] = false;
+        }
+        return ways;
+    }
+
+    // returns if the provided numbers alone force the target safe, by trying every placement around them.
+    boolean forces(int[] visible, int width, List<Integer> numbers, int target) {
+        ArrayList<Integer> tiles = new ArrayList<>();
+        for (int number : numbers) {
+            for (int tile : this.hiddenAround(visible, width, number)) {
+                if (!tiles.contains(tile)) {
+                    tiles.add(tile);
+                }
+            }
+        }
+        if (!tiles.contains(target)) {
+            return false;
+        }
+
+        boolean[] bomb = new boolean[visible.length];
+        for (int set = 0; set < (1 << tiles.size()); set += 1) {
+            for (int j = 0; j < tiles.size(); j += 1) {
+                bomb[tiles.get(j)] = (set >> j & 1) == 1;
+            }
+            boolean fits = true;
+            for (int number : numbers) {
+                fits = fits && this.bombsAround(bomb, width, visible.length / width, number) == visible[number];
+            }
+            if (fits && bomb[target]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // returns the hidden tiles around a tile.
+    ArrayList<Integer> hiddenAround(int[] visible, int width, int tile) {
+        ArrayList<Integer> around = new ArrayList<>();
+        int height = visible.length / width;
+        for (int dy = -1; dy <= 1; dy += 1) {
+            for (int dx = -1; dx <= 1; dx += 1) {
+                int x = tile % width + dx;
+                int y = tile / width + dy;
+                if ((dx != 0 || dy != 0) && x >= 0 && x < width && y >= 0 && y < height && visible[y * width + x] == -1) {
+                    around.add(y * width + x);
+                }
+            }
+        }
+        return around;
+    }
+
+    // returns the # of bombs around a tile.
+    int bombsAround(boolean[] bomb, int width, int height, int tile) {
+        int count = 0;
+        for (int dy = -1; dy <= 1; dy += 1) {
+            for (int dx = -1; dx <= 1; dx += 1) {
+                int x = tile % width + dx;
+                int y = tile / width + dy;
+                if ((dx != 0 || dy != 0) && x >= 0 && x < width && y >= 0 && y < height && bomb[y * width + x]) {
+                    count += 1;
+                }
+            }
+        }
+        return count;
     }
 }
\ No newline at end of file
@@ -18,6 +18,12 @@ class MineController extends World {
     private MineModel model;
     private MineView view;
 
+    // the hint engine, the tile the mouse is over (null if none),
+    // and the explanation last drawn (null if none).
+    private MineHint hint;
+    private Posn hovered;
+    private MineHint.Explanation shown;
+
     // whether or not a game is in session.
     boolean inSession;
 
@@ -27,13 +33,26 @@ class MineController extends World {
     int bombs;
 
     // default constructor
+    // precomputes the model's opening index, so zero tiles open through bulkFill.
     MineController(int width, int height, int bombs) {
+        this(width, height, bombs, true);
+    }
+
+    // constructor that optionally precomputes the model's opening index, so zero tiles
+    // open through bulkFill instead of floodFill.
+    MineController(int width, int height, int bombs, boolean useOpeningIndex) {
+        this(new MineModel(width, height, bombs, useOpeningIndex), width, height, bombs);
+    }
+
+    // constructor for a provided Model, for testing.
+    MineController(MineModel model, int width, int height, int bombs) {
         this.width = width;
         this.height = height;
         this.bombs = bombs;
 
-        this.model = new MineModel(width, height, bombs);
+        this.model = model;
         this.view = new MineView(width, height);
+        this.hint = new MineHint(this.model, width, height, bombs);
         this.inSession = true;
 
         this.view.drawBombCount(this.model.numRemainingBombs(), this.model.numRemainingTiles(), false);
@@ -54,6 +73,10 @@ class MineController extends World {
         if (this.checkAndComputeGameLoss(button, x, y)) {
             return;
         }
+        // the status row under the grid is not a tile.
+        if (!this.model.onBoard(x, y)) {
+            return;
+        }
 
         // if left button, update view with #.
         if (button.equals("LeftButton")) {
@@ -73,6 +96,82 @@ class MineController extends World {
         this.view.drawBombCount(this.model.numRemainingBombs(), this.model.numRemainingTiles(), false);
     }
 
+    // remembers the hovered tile and shows its hint.
+    public void onMouseMoved(Posn pos) {
+        this.hovered = new Posn(this.view.toGrid(pos.x), this.view.toGrid(pos.y));
+        this.drawHint();
+    }
+
+    // shows the hint once the background solver has it.
+    public void onTick() {
+        this.drawHint();
+    }
+
+    // draws the hint for the hovered tile, and highlights the numbers that force it.
+    // only draws when the explanation changed, and only ever reads MineHint's cache, never solves.
+    private void drawHint() {
+        MineHint.Explanation explanation = null;
+        if (this.hovered != null && this.inSession) {
+            explanation = this.hint.explain(this.hovered.x, this.hovered.y);
+        }
+        if (explanation == this.shown) {
+            return;
+        }
+
+        // put the last reasons back to plain numbers.
+        if (this.shown != null) {
+            for (MineHint.Tile reason : this.shown.reasons) {
+                this.drawNumber(reason.x, reason.y);
+            }
+        }
+        this.shown = explanation;
+
+        if (explanation == null) {
+            this.view.drawNoHint();
+            return;
+        }
+        for (MineHint.Tile reason : explanation.reasons) {
+            this.view.drawReason(reason.x, reason.y);
+        }
+        int percent = (int) Math.round(explanation.probability * 100);
+        this.view.drawHint(percent, explanation.kind != MineHint.Kind.GUESS, this.hintDetail(explanation));
+    }
+
+    // says why the hovered tile has its chance: how many numbers force it (highlighted),
+    // or the bombs expected in its component out of its tiles. ~ if approximate.
+    private String hintDetail(MineHint.Explanation explanation) {
+        String detail = "";
+        if (explanation.kind != MineHint.Kind.GUESS) {
+            if (explanation.usesBombCount) {
+                detail = "count";
+            }
+            else if (explanation.reasonTruncated) {
+                detail = ">" + MineHint.MAX_REASON_SIZE;
+            }
+            else if (!explanation.reasons.isEmpty()) {
+                detail = "by " + explanation.reasons.size();
+            }
+        }
+        else if (explanation.component == -1) {
+            detail = String.format("%.1f/%d", explanation.unconstrainedBombs, explanation.unconstrainedTiles);
+        }
+        else {
+            MineHint.Odds odds = explanation.breakdown.get(explanation.component);
+            detail = String.format("%.1f/%d", odds.expectedBombs, odds.tiles);
+        }
+
+        if (explanation.approximate) {
+            detail = "~" + detail;
+        }
+        return detail;
+    }
+
+    // marks a tile as clicked, and lets the hints it affects go.
+    private void reveal(int x, int y) {
+        this.model.tileClick(x, y);
+        this.hint.invalidate(x, y);
+    }
+
     // takes action to left-click on a tile and flood-fill zero tiles.
     // invariant: should only ever be called on non-bomb tiles.
     private void floodFill(int startX, int startY) {
@@ -106,12 +205,33 @@ class MineController extends World {
                     toFill.push(new Posn(x + 1, y + 1));
                 }
                 // we are now clicked.
-                this.model.tileClick(x, y);
+                this.reveal(x, y);
             }
 
         }
     }
 
+    // takes action to left-click on a tile and reveal its precomputed zero-region.
+    // proportional to the size of the region, no search needed.
+    // invariant: should only ever be called on zero tiles, with an opening index.
+    private void bulkFill(int startX, int startY) {
+        for (int tile : this.model.openingAt(startX, startY)) {
+            int x = tile % this.width;
+            int y = tile / this.width;
+
+            // the region may have been partly revealed by clicks on its border.
+            if (!this.model.hasBeenClicked(x, y)) {
+                if (this.model.numNeighboringBombs(x, y) > 0) {
+                    this.numberTile(x, y);
+                }
+                else {
+                    this.view.drawBlankPressed(x, y);
+                    this.reveal(x, y);
+                }
+            }
+        }
+    }
+
     // human leftclick.
     private void leftClick(int x, int y) {
         // if we have not been clicked and not been flagged, compute left-click.
@@ -160,6 +280,8 @@ class MineController extends World {
         // if game not in session, then start new game.
         if (!this.inSession) {
             this.model.resetBoard();
+            this.hint.reset();
+            this.shown = null;
 
             this.view.resetView(this.model.numRemainingBombs(), this.model.numRemainingTiles());
             this.inSession = true;
@@ -208,37 +330,51 @@ class MineController extends World {
         // if we have > 0 bombs in neighboring, mark as #.
         if (numNeighboringBombs > 0) {
             // has now been clicked.
-            this.model.tileClick(x, y);
-
-            if (numNeighboringBombs == 1) {
-                this.view.drawOne(x, y);
-            }
-            else if (numNeighboringBombs == 2) {
-                this.view.drawTwo(x, y);
-            }
-            else if (numNeighboringBombs == 3) {
-                this.view.drawThree(x, y);
-            }
-            else if (numNeighboringBombs == 4) {
-                this.view.drawFour(x, y);
-            }
-            else if (numNeighboringBombs == 5) {
-                this.view.drawFive(x, y);
-            }
-            else if (numNeighboringBombs == 6) {
-                this.view.drawSix(x, y);
-            }
-            else if (numNeighboringBombs == 7) {
-                this.view.drawSeven(x, y);
+            this.reveal(x, y);
+            this.drawNumber(x, y);
+        }
+        // floodfill the neighboring tiles/zeroes. (we are a zero)
+        else {
+            // automatically takes care of tileClick.
+            if (this.model.hasOpeningIndex()) {
+                this.bulkFill(x, y);
             }
             else {
-                this.view.drawEight(x, y);
+                this.floodFill(x, y);
             }
         }
-        // floodfill the neighboring tiles/zeroes. (we are a zero)
+    }
+
+    // draws a clicked tile's number.
+    private void drawNumber(int x, int y) {
+        int numNeighboringBombs = this.model.numNeighboringBombs(x, y);
+
+        if (numNeighboringBombs == 0) {
+            this.view.drawBlankPressed(x, y);
+        }
+        else if (numNeighboringBombs == 1) {
+            this.view.drawOne(x, y);
+        }
+        else if (numNeighboringBombs == 2) {
+            this.view.drawTwo(x, y);
+        }
+        else if (numNeighboringBombs == 3) {
+            this.view.drawThree(x, y);
+        }
+        else if (numNeighboringBombs == 4) {
+            this.view.drawFour(x, y);
+        }
+        else if (numNeighboringBombs == 5) {
+            this.view.drawFive(x, y);
+        }
+        else if (numNeighboringBombs == 6) {
+            this.view.drawSix(x, y);
+        }
+        else if (numNeighboringBombs == 7) {
+            this.view.drawSeven(x, y);
+        }
         else {
-            // automatically takes care of tileClick.
-            this.floodFill(x, y);
+            this.view.drawEight(x, y);
         }
     }
 }
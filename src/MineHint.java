@@ -0,0 +1,1268 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Stack;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+
+/**
+ * a MineHint to explain, from the visible board alone, why a tile is safe, a bomb, or a guess.
+ * Hint engine for MineSweeper game
+ *
+ * Every revealed number is a constraint on its hidden neighbors. Constraints sharing hidden
+ * tiles form a component, whose solutions are counted by sweeping its tiles in order, and
+ * weighted by the ways to place the leftover bombs on the unconstrained tiles. A component
+ * that needs more than MAX_EXACT_CELLS counts is split into pieces of MAX_PIECE_TILES tiles,
+ * counted on their own, and its explanations are marked approximate; its tiles are still
+ * forced by the numbers near them where those alone decide them.
+ *
+ * One background solve per reveal works out every hidden tile at once. The fewest numbers
+ * forcing a tile are only searched for when it is hovered. Explanations are cached until a
+ * reveal touches the numbers they were built from; explain() never solves anything itself.
+ *
+ * @author Alex Takayama
+ * @since 2019-05-1
+ */
+class MineHint {
+
+    // the most revealed numbers tried together when looking for a minimal reason.
+    static final int MAX_REASON_SIZE = 4;
+    // the most counts an exact count of one component may keep before it is split up.
+    static final int MAX_EXACT_CELLS = 4000000;
+    // the most tiles in one piece of a split component.
+    static final int MAX_PIECE_TILES = 16;
+    // the most steps spent checking what the numbers near one tile of a split component force.
+    static final int MAX_NEARBY_STEPS = 100000;
+
+    // what an explanation says about its tile.
+    enum Kind { SAFE, BOMB, GUESS }
+
+    // the Model we explain, and its dimensions and bombs.
+    private MineModel model;
+    private int width;
+    private int height;
+    private int bombs;
+
+    // the most counts an exact count of one component may keep, and the most tiles in one piece
+    // of a split component (see MAX_EXACT_CELLS and MAX_PIECE_TILES).
+    private final long maxExactCells;
+    private final int maxPieceTiles;
+
+    // log(n!) for every n up to the # of tiles, to count bomb placements without overflow.
+    private final double[] logFactorial;
+
+    // the single background thread that does all the solving.
+    private ExecutorService solver;
+    // the newest board waiting to be solved; a newer one replaces it.
+    private AtomicReference<Request> request;
+    // solved boards and reasons handed back by the solver, collected on the UI thread.
+    private ConcurrentLinkedQueue<Board> solvedBoards;
+    private ConcurrentLinkedQueue<Reason> solvedReasons;
+
+    // bumped on every reveal; the solver skips work asked for before it.
+    private volatile int generation;
+
+    // UI thread only:
+    // the generation last asked to be solved, and the newest board solved.
+    private int requested;
+    private Board board;
+    // the cached explanations and the tiles whose reasons are being searched (by y * width + x),
+    // for every hidden tile the explanations whose reason talks about it,
+    // and the explanations that any reveal invalidates.
+    private HashMap<Integer, Explanation> cache;
+    private HashSet<Integer> pendingReasons;
+    private HashMap<Integer, HashSet<Integer>> dependents;
+    private HashSet<Integer> global;
+
+    // solver thread only: the solved components, by their tiles and numbers,
+    // and the constraints of the last board solved.
+    private HashMap<String, Component> components;
+    private Constraints constraints;
+
+    // default constructor
+    MineHint(MineModel model, int width, int height, int bombs) {
+        this(model, width, height, bombs, MAX_EXACT_CELLS, MAX_PIECE_TILES);
+    }
+
+    // constructor with other limits on counting, so tests can split components on small boards.
+    MineHint(MineModel model, int width, int height, int bombs, long maxExactCells, int maxPieceTiles) {
+        this.model = model;
+        this.width = width;
+        this.height = height;
+        this.bombs = bombs;
+        this.maxExactCells = maxExactCells;
+        this.maxPieceTiles = maxPieceTiles;
+
+        this.logFactorial = new double[width * height + 1];
+        for (int i = 1; i <= width * height; i += 1) {
+            this.logFactorial[i] = this.logFactorial[i - 1] + Math.log(i);
+        }
+
+        // a daemon, so it never keeps the game open.
+        this.solver = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "mine-hint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.request = new AtomicReference<>();
+        this.solvedBoards = new ConcurrentLinkedQueue<>();
+        this.solvedReasons = new ConcurrentLinkedQueue<>();
+        this.components = new HashMap<>();
+
+        this.reset();
+    }
+
+    // forgets every explanation, for a new board.
+    public void reset() {
+        this.generation += 1;
+        this.board = null;
+        this.cache = new HashMap<>();
+        this.pendingReasons = new HashSet<>();
+        this.dependents = new HashMap<>();
+        this.global = new HashSet<>();
+    }
+
+    // returns the explanation for the hidden tile at (x, y), or null if it is revealed, off the board,
+    // or not solved yet (in which case the board gets solved in the background).
+    public Explanation explain(int x, int y) {
+        this.collect();
+
+        if (!this.model.onBoard(x, y) || this.model.hasBeenClicked(x, y)) {
+            return null;
+        }
+
+        int tile = y * this.width + x;
+        Explanation cached = this.cache.get(tile);
+        if (cached != null) {
+            return cached;
+        }
+
+        // nothing solved since the last reveal: ask for it, and say nothing until it comes.
+        if (this.board == null || this.board.generation != this.generation) {
+            this.requestBoard();
+            return null;
+        }
+
+        Explanation explanation = this.fromBoard(tile);
+        this.cache.put(tile, explanation);
+        this.global.add(tile);
+
+        // forced by the numbers alone: look for the fewest of them, in the background.
+        if (explanation.kind != Kind.GUESS && !explanation.usesBombCount) {
+            this.pendingReasons.add(tile);
+            int generation = this.generation;
+            boolean isBomb = explanation.kind == Kind.BOMB;
+            this.solver.execute(() -> this.solveReason(generation, tile, isBomb));
+        }
+        return explanation;
+    }
+
+    // invalidates the explanations affected by revealing the tile at (x, y):
+    // those whose reason talks about it or a neighbor, and those any reveal invalidates.
+    public void invalidate(int x, int y) {
+        this.generation += 1;
+        this.pendingReasons.clear();
+
+        for (int dy = -1; dy <= 1; dy += 1) {
+            for (int dx = -1; dx <= 1; dx += 1) {
+                if (this.model.onBoard(x + dx, y + dy)) {
+                    HashSet<Integer> affected = this.dependents.get((y + dy) * this.width + (x + dx));
+                    if (affected != null) {
+                        for (int tile : new ArrayList<>(affected)) {
+                            this.forget(tile);
+                        }
+                    }
+                }
+            }
+        }
+
+        for (int tile : new ArrayList<>(this.global)) {
+            this.forget(tile);
+        }
+        this.forget(y * this.width + x);
+    }
+
+    // drops a cached explanation, and every record of what it depends on.
+    private void forget(int tile) {
+        Explanation explanation = this.cache.remove(tile);
+        if (explanation == null) {
+            return;
+        }
+        this.global.remove(tile);
+        for (int dependsOn : explanation.region) {
+            HashSet<Integer> affected = this.dependents.get(dependsOn);
+            if (affected != null) {
+                affected.remove(tile);
+                if (affected.isEmpty()) {
+                    this.dependents.remove(dependsOn);
+                }
+            }
+        }
+    }
+
+    // asks the solver for the current board, unless it already has been.
+    private void requestBoard() {
+        if (this.requested == this.generation) {
+            return;
+        }
+        this.requested = this.generation;
+        this.request.set(new Request(this.generation, this.model.visibleSnapshot()));
+        this.solver.execute(this::solveLatest);
+    }
+
+    // takes in what the solver finished, dropping anything solved before the last reveal.
+    private void collect() {
+        Board solvedBoard = this.solvedBoards.poll();
+        while (solvedBoard != null) {
+            if (solvedBoard.generation == this.generation) {
+                this.board = solvedBoard;
+            }
+            solvedBoard = this.solvedBoards.poll();
+        }
+
+        Reason reason = this.solvedReasons.poll();
+        while (reason != null) {
+            if (reason.generation == this.generation && this.pendingReasons.remove(reason.tile)) {
+                Explanation old = this.cache.get(reason.tile);
+                if (old != null) {
+                    this.forget(reason.tile);
+                    this.cache.put(reason.tile, this.withReason(old, reason));
+
+                    // a reason found stays good until a reveal touches it.
+                    if (reason.reasons == null) {
+                        this.global.add(reason.tile);
+                    }
+                    else {
+                        for (int dependsOn : reason.region) {
+                            this.dependents.computeIfAbsent(dependsOn, k -> new HashSet<>()).add(reason.tile);
+                        }
+                    }
+                }
+            }
+            reason = this.solvedReasons.poll();
+        }
+    }
+
+    // builds the explanation of a hidden tile from the current board, without its reasons.
+    private Explanation fromBoard(int tile) {
+        Board b = this.board;
+        int component = b.componentOf[tile];
+        boolean approximate = component == -1 ? b.anyApproximate : b.breakdown.get(component).approximate;
+        return new Explanation(tile % this.width, tile / this.width, b.kinds[tile], b.probabilities[tile],
+                approximate, new ArrayList<>(), false, b.usesBombCount[tile], b.breakdown, component,
+                b.freeTiles, b.freeBombs, new int[0]);
+    }
+
+    // the same explanation, with the reason the solver found for it.
+    private Explanation withReason(Explanation old, Reason reason) {
+        if (reason.reasons == null) {
+            return new Explanation(old.x, old.y, old.kind, old.probability, old.approximate, new ArrayList<>(),
+                    true, old.usesBombCount, old.breakdown, old.component, old.unconstrainedTiles,
+                    old.unconstrainedBombs, new int[0]);
+        }
+        return new Explanation(old.x, old.y, old.kind, old.probability, old.approximate, reason.reasons,
+                false, old.usesBombCount, old.breakdown, old.component, old.unconstrainedTiles,
+                old.unconstrainedBombs, reason.region);
+    }
+
+    // solves the newest board asked for, if nothing has been revealed since.
+    // runs on the solver thread only.
+    private void solveLatest() {
+        Request latest = this.request.getAndSet(null);
+        if (latest == null || latest.generation != this.generation) {
+            return;
+        }
+        this.constraints = new Constraints(latest.visible, latest.generation);
+        this.solvedBoards.add(this.solve(this.constraints));
+    }
+
+    // searches for the fewest numbers forcing a tile, if nothing has been revealed since.
+    // runs on the solver thread only.
+    private void solveReason(int generation, int target, boolean isBomb) {
+        if (generation != this.generation || this.constraints == null || this.constraints.generation != generation) {
+            return;
+        }
+
+        ArrayList<Integer> reason = this.minimalReason(target, isBomb, this.constraints);
+        if (reason == null) {
+            this.solvedReasons.add(new Reason(generation, target, null, null));
+            return;
+        }
+
+        // the reason talks about the target and the hidden tiles around its numbers.
+        TreeSet<Integer> region = new TreeSet<>();
+        region.add(target);
+        ArrayList<Tile> reasons = new ArrayList<>();
+        for (int con : reason) {
+            region.addAll(this.constraints.hiddenAround.get(con));
+            reasons.add(new Tile(con % this.width, con / this.width));
+        }
+        this.solvedReasons.add(new Reason(generation, target, reasons, this.toArray(region)));
+    }
+
+    // works out every hidden tile of the board at once.
+    private Board solve(Constraints board) {
+        int size = this.width * this.height;
+        Board result = new Board(board.generation, size);
+
+        // group the constraints into components that share hidden tiles, solving each.
+        ArrayList<Component> comps = new ArrayList<>();
+        HashSet<Integer> grouped = new HashSet<>();
+        HashSet<String> used = new HashSet<>();
+        int constrained = 0;
+        for (int start : board.list) {
+            if (grouped.contains(start)) {
+                continue;
+            }
+            TreeSet<Integer> cons = new TreeSet<>();
+            TreeSet<Integer> tiles = new TreeSet<>();
+            Stack<Integer> toVisit = new Stack<>();
+            toVisit.push(start);
+            grouped.add(start);
+
+            while (!toVisit.isEmpty()) {
+                int con = toVisit.pop();
+                cons.add(con);
+                for (int tile : board.hiddenAround.get(con)) {
+                    tiles.add(tile);
+                    for (int other : board.constraintsOn.get(tile)) {
+                        if (grouped.add(other)) {
+                            toVisit.push(other);
+                        }
+                    }
+                }
+            }
+
+            for (int tile : tiles) {
+                result.componentOf[tile] = comps.size();
+            }
+            constrained += tiles.size();
+            comps.add(this.component(cons, tiles, board, used));
+        }
+        // only keep the components still on the board.
+        this.components.keySet().retainAll(used);
+
+        // every piece of every component, in one line.
+        ArrayList<Piece> pieces = new ArrayList<>();
+        ArrayList<Integer> pieceComp = new ArrayList<>();
+        for (int j = 0; j < comps.size(); j += 1) {
+            for (Piece piece : comps.get(j).pieces) {
+                pieces.add(piece);
+                pieceComp.add(j);
+            }
+        }
+        int numPieces = pieces.size();
+
+        // prefix[j][a]: the ways for the pieces before j to hold a bombs.
+        // lo and hi bound the bombs all the pieces can hold together.
+        double[][] prefix = new double[numPieces + 1][];
+        prefix[0] = new double[] { 1 };
+        int lo = 0;
+        int hi = 0;
+        for (int j = 0; j < numPieces; j += 1) {
+            prefix[j + 1] = this.convolve(prefix[j], pieces.get(j).ways);
+            lo += pieces.get(j).lo;
+            hi += pieces.get(j).hi;
+        }
+        double[] all = prefix[numPieces];
+
+        // the weight of m bombs on the unconstrained tiles: C(free, m),
+        // scaled so the likeliest whole board weighs 1.
+        int free = board.hidden - constrained;
+        double scale = Double.NEGATIVE_INFINITY;
+        for (int t = 0; t < all.length; t += 1) {
+            int m = this.bombs - t;
+            if (all[t] > 0 && m >= 0 && m <= free) {
+                scale = Math.max(scale, Math.log(all[t]) + this.logChoose(free, m));
+            }
+        }
+        double[] weight = new double[free + 1];
+        for (int m = 0; m <= free; m += 1) {
+            weight[m] = Math.exp(this.logChoose(free, m) - scale);
+        }
+
+        // suffix[j][c]: the weight of the pieces from j on and the unconstrained tiles,
+        // given c bombs in the pieces before j.
+        double[][] suffix = new double[numPieces + 1][];
+        suffix[numPieces] = new double[constrained + 1];
+        for (int c = 0; c <= constrained; c += 1) {
+            int m = this.bombs - c;
+            if (m >= 0 && m <= free) {
+                suffix[numPieces][c] = weight[m];
+            }
+        }
+        for (int j = numPieces - 1; j >= 0; j -= 1) {
+            double[] ways = pieces.get(j).ways;
+            suffix[j] = new double[prefix[j].length];
+            for (int c = 0; c < suffix[j].length; c += 1) {
+                for (int k = 0; k < ways.length; k += 1) {
+                    suffix[j][c] += ways[k] * suffix[j + 1][c + k];
+                }
+            }
+        }
+
+        // every piece, weighed by the rest of the board.
+        double[] expected = new double[comps.size()];
+        for (int j = 0; j < numPieces; j += 1) {
+            Piece piece = pieces.get(j);
+
+            // restWeight[k]: the weight of the rest of the board, given k bombs in this piece.
+            double[] restWeight = new double[piece.ways.length];
+            double total = 0;
+            for (int k = 0; k < piece.ways.length; k += 1) {
+                for (int a = 0; a < prefix[j].length; a += 1) {
+                    restWeight[k] += prefix[j][a] * suffix[j + 1][a + k];
+                }
+                total += piece.ways[k] * restWeight[k];
+            }
+            for (int k = 0; k < piece.ways.length; k += 1) {
+                expected[pieceComp.get(j)] += k * piece.ways[k] * restWeight[k] / total;
+            }
+
+            // the bombs the other pieces can hold, so the bombs this one can hold with the bomb count.
+            int restLo = lo - piece.lo;
+            int restHi = hi - piece.hi;
+            this.weigh(piece, restWeight, this.bombs - free - restHi, this.bombs - restLo, result);
+        }
+
+        // a split component can miss what a few numbers force together: take what the numbers near it say.
+        for (Component comp : comps) {
+            for (int tile : comp.forcedNearby.keySet()) {
+                if (result.kinds[tile] == Kind.GUESS) {
+                    result.kinds[tile] = comp.forcedNearby.get(tile);
+                    result.probabilities[tile] = result.kinds[tile] == Kind.BOMB ? 1 : 0;
+                }
+            }
+        }
+
+        for (int j = 0; j < comps.size(); j += 1) {
+            result.breakdown.add(new Odds(comps.get(j).tiles, expected[j], comps.get(j).approximate));
+            result.anyApproximate = result.anyApproximate || comps.get(j).approximate;
+        }
+
+        // the unconstrained tiles, all alike: only the bomb count can force them.
+        double freeTotal = 0;
+        double freeExpected = 0;
+        for (int t = 0; t < all.length; t += 1) {
+            int m = this.bombs - t;
+            if (m >= 0 && m <= free) {
+                freeTotal += all[t] * weight[m];
+                freeExpected += all[t] * weight[m] * m;
+            }
+        }
+        result.freeTiles = free;
+        result.freeBombs = free == 0 ? 0 : freeExpected / freeTotal;
+        boolean freeCanHaveBombs = Math.max(lo, this.bombs - free) <= Math.min(hi, this.bombs - 1);
+        boolean freeCanHaveSafe = Math.max(lo, this.bombs - free + 1) <= Math.min(hi, this.bombs);
+
+        for (int tile = 0; tile < size; tile += 1) {
+            if (board.visible[tile] == -1 && result.componentOf[tile] == -1) {
+                result.probabilities[tile] = result.freeBombs / free;
+                result.usesBombCount[tile] = true;
+                if (!freeCanHaveBombs) {
+                    result.kinds[tile] = Kind.SAFE;
+                }
+                else if (!freeCanHaveSafe) {
+                    result.kinds[tile] = Kind.BOMB;
+                }
+                else {
+                    result.kinds[tile] = Kind.GUESS;
+                    result.usesBombCount[tile] = false;
+                }
+            }
+        }
+        return result;
+    }
+
+    // returns the solved component for the provided constraints and tiles, solving it if it is new.
+    // counts it exactly if that takes at most maxExactCells counts, else splits it into pieces.
+    private Component component(TreeSet<Integer> cons, TreeSet<Integer> tiles, Constraints board,
+                                HashSet<String> used) {
+        // keyed on the numbers too: the same tiles show other numbers in the next game.
+        StringBuilder keyBuilder = new StringBuilder(tiles.toString());
+        for (int con : cons) {
+            keyBuilder.append(' ').append(con).append('=').append(board.visible[con]);
+        }
+        String key = keyBuilder.toString();
+        used.add(key);
+
+        Component comp = this.components.get(key);
+        if (comp != null) {
+            return comp;
+        }
+
+        int[] order = this.order(tiles, board);
+        Piece whole = this.count(order, cons, board, this.maxExactCells);
+        comp = new Component(tiles.size(), whole == null);
+        if (whole != null) {
+            comp.pieces.add(whole);
+        }
+        else {
+            // split along the order, so every piece is a stretch of neighboring tiles.
+            for (int start = 0; start < order.length; start += this.maxPieceTiles) {
+                int end = Math.min(order.length, start + this.maxPieceTiles);
+                int[] pieceTiles = new int[end - start];
+                System.arraycopy(order, start, pieceTiles, 0, end - start);
+                this.addPieces(pieceTiles, board, comp);
+            }
+            for (int tile : tiles) {
+                Kind kind = this.forcedNearby(tile, board);
+                if (kind != Kind.GUESS) {
+                    comp.forcedNearby.put(tile, kind);
+                }
+            }
+        }
+        this.components.put(key, comp);
+        return comp;
+    }
+
+    // counts a stretch of tiles as a piece of a split component, halving it while it has
+    // too many numbers open at once to count.
+    private void addPieces(int[] tiles, Constraints board, Component comp) {
+        TreeSet<Integer> cons = new TreeSet<>();
+        for (int tile : tiles) {
+            cons.addAll(board.constraintsOn.get(tile));
+        }
+        Piece piece = this.count(tiles, cons, board, Long.MAX_VALUE);
+        if (piece != null) {
+            comp.pieces.add(piece);
+            return;
+        }
+        int half = tiles.length / 2;
+        int[] front = new int[half];
+        int[] back = new int[tiles.length - half];
+        System.arraycopy(tiles, 0, front, 0, half);
+        System.arraycopy(tiles, half, back, 0, back.length);
+        this.addPieces(front, board, comp);
+        this.addPieces(back, board, comp);
+    }
+
+    // orders the tiles of a component so neighbors come close together:
+    // breadth-first, from a tile as far as we can find from the first one.
+    private int[] order(TreeSet<Integer> tiles, Constraints board) {
+        int[] order = this.breadthFirst(tiles.first(), board);
+        return this.breadthFirst(order[order.length - 1], board);
+    }
+
+    // returns the tiles of a component, breadth-first from start.
+    private int[] breadthFirst(int start, Constraints board) {
+        ArrayList<Integer> order = new ArrayList<>();
+        HashSet<Integer> seen = new HashSet<>();
+        order.add(start);
+        seen.add(start);
+        for (int i = 0; i < order.size(); i += 1) {
+            for (int con : board.constraintsOn.get(order.get(i))) {
+                for (int tile : board.hiddenAround.get(con)) {
+                    if (seen.add(tile)) {
+                        order.add(tile);
+                    }
+                }
+            }
+        }
+        return this.toArray(order);
+    }
+
+    // counts the bombs on the provided tiles that satisfy the provided numbers, as a piece.
+    // numbers reaching past the tiles only bound them: at most their value, at least what the rest
+    // can't hold. returns null if it takes over maxCells counts, or too many numbers are open at once.
+    //
+    // sweeps the tiles in order, remembering for every number started but not finished only
+    // the bombs it still needs (its state): placements that agree on that so far finish alike,
+    // so they are counted together instead of one by one.
+    private Piece count(int[] tiles, TreeSet<Integer> cons, Constraints board, long maxCells) {
+        int n = tiles.length;
+        int[] numbers = this.toArray(cons);
+
+        // for every number: its value, its first and last tile here, its tiles here and elsewhere.
+        HashMap<Integer, Integer> position = new HashMap<>();
+        ArrayList<ArrayList<Integer>> tileCons = new ArrayList<>();
+        for (int i = 0; i < n; i += 1) {
+            position.put(tiles[i], i);
+            tileCons.add(new ArrayList<>());
+        }
+        int[] first = new int[numbers.length];
+        int[] last = new int[numbers.length];
+        int[] inside = new int[numbers.length];
+        int[] outside = new int[numbers.length];
+        for (int j = 0; j < numbers.length; j += 1) {
+            first[j] = n;
+            last[j] = -1;
+            for (int tile : board.hiddenAround.get(numbers[j])) {
+                Integer at = position.get(tile);
+                if (at == null) {
+                    outside[j] += 1;
+                }
+                else {
+                    tileCons.get(at).add(j);
+                    inside[j] += 1;
+                    first[j] = Math.min(first[j], at);
+                    last[j] = Math.max(last[j], at);
+                }
+            }
+        }
+
+        // a state keeps what every open number still needs in 4 bits (a slot) of a long.
+        int[] slot = new int[numbers.length];
+        boolean[] slotUsed = new boolean[Long.SIZE / 4];
+        int[] placed = new int[numbers.length];
+
+        Piece piece = new Piece(tiles);
+        piece.reach[0] = new double[][] { { 1 } };
+        long[] states = { 0 };
+        long cells = 1;
+
+        for (int i = 0; i < n; i += 1) {
+            ArrayList<Integer> here = tileCons.get(i);
+            for (int j : here) {
+                placed[j] += 1;
+                if (first[j] == i && last[j] > i) {
+                    slot[j] = -1;
+                    for (int k = 0; k < slotUsed.length && slot[j] == -1; k += 1) {
+                        if (!slotUsed[k]) {
+                            slotUsed[k] = true;
+                            slot[j] = k;
+                        }
+                    }
+                    if (slot[j] == -1) {
+                        return null;
+                    }
+                }
+            }
+
+            HashMap<Long, Integer> index = new HashMap<>();
+            ArrayList<Long> nextStates = new ArrayList<>();
+            ArrayList<double[]> nextReach = new ArrayList<>();
+            piece.next[i] = new int[states.length][2];
+            for (int s = 0; s < states.length; s += 1) {
+                for (int bomb = 0; bomb <= 1; bomb += 1) {
+                    // the state after this tile, pruning on the numbers it touches.
+                    long state = states[s];
+                    boolean possible = true;
+                    for (int j : here) {
+                        int shift = 4 * slot[j];
+                        int need = (first[j] == i ? board.visible[numbers[j]] : (int) (state >>> shift & 15)) - bomb;
+                        possible = possible && need >= 0 && need <= inside[j] - placed[j] + outside[j];
+                        if (possible && last[j] > i) {
+                            state = state & ~(15L << shift) | (long) need << shift;
+                        }
+                        else if (possible && first[j] < i) {
+                            state = state & ~(15L << shift);
+                        }
+                    }
+                    if (!possible) {
+                        piece.next[i][s][bomb] = -1;
+                        continue;
+                    }
+
+                    Integer at = index.get(state);
+                    if (at == null) {
+                        at = nextStates.size();
+                        index.put(state, at);
+                        nextStates.add(state);
+                        nextReach.add(new double[i + 2]);
+                        cells += i + 2;
+                        if (cells > maxCells) {
+                            return null;
+                        }
+                    }
+                    piece.next[i][s][bomb] = at;
+                    double[] from = piece.reach[i][s];
+                    double[] to = nextReach.get(at);
+                    for (int c = 0; c < from.length; c += 1) {
+                        to[c + bomb] += from[c];
+                    }
+                }
+            }
+
+            for (int j : here) {
+                if (last[j] == i && first[j] < i) {
+                    slotUsed[slot[j]] = false;
+                }
+            }
+            states = this.toLongArray(nextStates);
+            piece.reach[i + 1] = nextReach.toArray(new double[0][]);
+            this.scale(piece.reach[i + 1]);
+        }
+
+        // every number has finished, so there is one state left: its counts are the piece's.
+        double total = 0;
+        for (double ways : piece.reach[n][0]) {
+            total += ways;
+        }
+        piece.lo = -1;
+        for (int k = 0; k <= n; k += 1) {
+            piece.ways[k] = piece.reach[n][0][k] / total;
+            if (piece.ways[k] > 0) {
+                piece.lo = piece.lo == -1 ? k : piece.lo;
+                piece.hi = k;
+            }
+        }
+        return piece;
+    }
+
+    // works out the chance of a bomb and the kind of every tile of a piece, given the weight of
+    // the rest of the board for every # of bombs in the piece, and the fewest and most bombs in it
+    // the bomb count allows. sweeps the piece backwards, meeting its counts at every tile.
+    private void weigh(Piece piece, double[] restWeight, int okLo, int okHi, Board result) {
+        int n = piece.tiles.length;
+
+        // for every state after the tile: the weight of the ways to finish by bombs so far,
+        // whether one of them is allowed by the bomb count, and whether there is one at all.
+        double[][] weight = { restWeight };
+        boolean[][] allowed = new boolean[1][n + 1];
+        for (int c = 0; c <= n; c += 1) {
+            allowed[0][c] = c >= okLo && c <= okHi;
+        }
+        boolean[] finishes = { true };
+
+        for (int i = n - 1; i >= 0; i -= 1) {
+            double[][] reach = piece.reach[i];
+            int[][] next = piece.next[i];
+            double[][] weightHere = new double[reach.length][i + 1];
+            boolean[][] allowedHere = new boolean[reach.length][i + 1];
+            boolean[] finishesHere = new boolean[reach.length];
+
+            double mined = 0;
+            double total = 0;
+            boolean canBeSafe = false;
+            boolean canBeBomb = false;
+            boolean canBeSafeLocally = false;
+            boolean canBeBombLocally = false;
+            for (int s = 0; s < reach.length; s += 1) {
+                for (int bomb = 0; bomb <= 1; bomb += 1) {
+                    int to = next[s][bomb];
+                    if (to == -1 || !finishes[to]) {
+                        continue;
+                    }
+                    finishesHere[s] = true;
+                    canBeBombLocally = canBeBombLocally || bomb == 1;
+                    canBeSafeLocally = canBeSafeLocally || bomb == 0;
+
+                    for (int c = 0; c <= i; c += 1) {
+                        double ways = reach[s][c] * weight[to][c + bomb];
+                        weightHere[s][c] += weight[to][c + bomb];
+                        allowedHere[s][c] = allowedHere[s][c] || allowed[to][c + bomb];
+                        total += ways;
+                        mined += ways * bomb;
+
+                        // decided on what is possible, so a tiny weight can never pass for zero.
+                        if (reach[s][c] > 0 && allowed[to][c + bomb]) {
+                            canBeBomb = canBeBomb || bomb == 1;
+                            canBeSafe = canBeSafe || bomb == 0;
+                        }
+                    }
+                }
+            }
+
+            int tile = piece.tiles[i];
+            result.probabilities[tile] = mined / total;
+            if (!canBeBomb) {
+                result.kinds[tile] = Kind.SAFE;
+                result.usesBombCount[tile] = canBeBombLocally;
+            }
+            else if (!canBeSafe) {
+                result.kinds[tile] = Kind.BOMB;
+                result.usesBombCount[tile] = canBeSafeLocally;
+            }
+            else {
+                result.kinds[tile] = Kind.GUESS;
+            }
+
+            this.scale(weightHere);
+            weight = weightHere;
+            allowed = allowedHere;
+            finishes = finishesHere;
+        }
+    }
+
+    // returns SAFE or BOMB if the numbers around a tile, and those next to them, force it on their own.
+    // gives up (GUESS) past MAX_NEARBY_STEPS.
+    private Kind forcedNearby(int tile, Constraints board) {
+        TreeSet<Integer> nearby = new TreeSet<>();
+        for (int con : board.constraintsOn.get(tile)) {
+            for (int other : board.hiddenAround.get(con)) {
+                nearby.addAll(board.constraintsOn.get(other));
+            }
+        }
+        ArrayList<Integer> cons = new ArrayList<>(nearby);
+        if (this.forcedBy(cons, tile, false, board, MAX_NEARBY_STEPS)) {
+            return Kind.SAFE;
+        }
+        if (this.forcedBy(cons, tile, true, board, MAX_NEARBY_STEPS)) {
+            return Kind.BOMB;
+        }
+        return Kind.GUESS;
+    }
+
+    // returns the fewest revealed numbers that force the target on their own,
+    // or null if it takes more than MAX_REASON_SIZE of them.
+    // a smallest reason is always connected (its numbers linked by shared hidden tiles) and
+    // touches the target, so it is grown one neighboring number at a time from those touching it.
+    private ArrayList<Integer> minimalReason(int target, boolean isBomb, Constraints board) {
+        ArrayList<ArrayList<Integer>> level = new ArrayList<>();
+        HashSet<String> seen = new HashSet<>();
+        for (int con : new TreeSet<>(board.constraintsOn.get(target))) {
+            ArrayList<Integer> start = new ArrayList<>();
+            start.add(con);
+            level.add(start);
+            seen.add(start.toString());
+        }
+
+        for (int size = 1; size <= MAX_REASON_SIZE; size += 1) {
+            for (ArrayList<Integer> reason : level) {
+                if (this.forcedBy(reason, target, isBomb, board, Integer.MAX_VALUE)) {
+                    return reason;
+                }
+            }
+            if (size == MAX_REASON_SIZE) {
+                break;
+            }
+
+            // every way to add one more neighboring number.
+            ArrayList<ArrayList<Integer>> next = new ArrayList<>();
+            for (ArrayList<Integer> reason : level) {
+                TreeSet<Integer> neighbors = new TreeSet<>();
+                for (int con : reason) {
+                    for (int tile : board.hiddenAround.get(con)) {
+                        neighbors.addAll(board.constraintsOn.get(tile));
+                    }
+                }
+                neighbors.removeAll(reason);
+                for (int con : neighbors) {
+                    TreeSet<Integer> grown = new TreeSet<>(reason);
+                    grown.add(con);
+                    ArrayList<Integer> candidate = new ArrayList<>(grown);
+                    if (seen.add(candidate.toString())) {
+                        next.add(candidate);
+                    }
+                }
+            }
+            level = next;
+        }
+        return null;
+    }
+
+    // returns if the provided numbers alone force the target to be a bomb (or safe).
+    // false if that takes over maxSteps to tell.
+    private boolean forcedBy(ArrayList<Integer> cons, int target, boolean isBomb, Constraints board,
+                             int maxSteps) {
+        TreeSet<Integer> tiles = new TreeSet<>();
+        for (int con : cons) {
+            tiles.addAll(board.hiddenAround.get(con));
+        }
+        int[] tileArray = this.toArray(tiles);
+        int local = -1;
+        for (int i = 0; i < tileArray.length; i += 1) {
+            if (tileArray[i] == target) {
+                local = i;
+            }
+        }
+        int targetIndex = local;
+
+        // stops at the first solution that disagrees.
+        return new Search(tileArray, this.toArray(new TreeSet<>(cons)), board, maxSteps) {
+            boolean visit(boolean[] mined, int count) {
+                return mined[targetIndex] == isBomb;
+            }
+        }.run();
+    }
+
+    // returns the # of ways for two independent groups to hold t bombs together, for every t.
+    private double[] convolve(double[] a, double[] b) {
+        double[] result = new double[a.length + b.length - 1];
+        for (int i = 0; i < a.length; i += 1) {
+            for (int j = 0; j < b.length; j += 1) {
+                result[i + j] += a[i] * b[j];
+            }
+        }
+        return result;
+    }
+
+    // returns log(C(n, k)).
+    private double logChoose(int n, int k) {
+        return this.logFactorial[n] - this.logFactorial[k] - this.logFactorial[n - k];
+    }
+
+    // scales some counts so the biggest is 1: only their ratios matter, and they stay in range.
+    private void scale(double[][] counts) {
+        double max = 0;
+        for (double[] row : counts) {
+            for (double count : row) {
+                max = Math.max(max, count);
+            }
+        }
+        if (max == 0) {
+            return;
+        }
+        for (double[] row : counts) {
+            for (int c = 0; c < row.length; c += 1) {
+                row[c] /= max;
+            }
+        }
+    }
+
+    // copies some states into an array, in order.
+    private long[] toLongArray(ArrayList<Long> states) {
+        long[] result = new long[states.size()];
+        for (int i = 0; i < result.length; i += 1) {
+            result[i] = states.get(i);
+        }
+        return result;
+    }
+
+    // copies some tiles into an array, in order.
+    private int[] toArray(Iterable<Integer> tiles) {
+        ArrayList<Integer> list = new ArrayList<>();
+        for (int tile : tiles) {
+            list.add(tile);
+        }
+        int[] result = new int[list.size()];
+        for (int i = 0; i < result.length; i += 1) {
+            result[i] = list.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * an explanation of one hidden tile: whether it is safe, a bomb, or a guess, and why.
+     */
+    static class Explanation {
+        // the tile explained.
+        final int x;
+        final int y;
+        // SAFE or BOMB if forced, GUESS otherwise.
+        final Kind kind;
+        // the chance of a bomb on the tile.
+        final double probability;
+        // whether its component was too big to count exactly (see MAX_EXACT_CELLS).
+        final boolean approximate;
+
+        // the fewest revealed numbers that force the tile on their own. empty for a guess,
+        // if the bomb count is needed, if there are more than MAX_REASON_SIZE of them,
+        // or while they are still being searched for.
+        final ArrayList<Tile> reasons;
+        // whether the search gave up at MAX_REASON_SIZE numbers.
+        final boolean reasonTruncated;
+        // whether the total # of bombs is needed to force the tile.
+        final boolean usesBombCount;
+
+        // the odds of every component, the one holding the tile (-1 if unconstrained),
+        // and the expected bombs over the unconstrained tiles.
+        final ArrayList<Odds> breakdown;
+        final int component;
+        final int unconstrainedTiles;
+        final double unconstrainedBombs;
+
+        // the hidden tiles the reasons talk about.
+        final int[] region;
+
+        // default constructor
+        Explanation(int x, int y, Kind kind, double probability, boolean approximate, ArrayList<Tile> reasons,
+                    boolean reasonTruncated, boolean usesBombCount, ArrayList<Odds> breakdown, int component,
+                    int unconstrainedTiles, double unconstrainedBombs, int[] region) {
+            this.x = x;
+            this.y = y;
+            this.kind = kind;
+            this.probability = probability;
+            this.approximate = approximate;
+            this.reasons = reasons;
+            this.reasonTruncated = reasonTruncated;
+            this.usesBombCount = usesBombCount;
+            this.breakdown = breakdown;
+            this.component = component;
+            this.unconstrainedTiles = unconstrainedTiles;
+            this.unconstrainedBombs = unconstrainedBombs;
+            this.region = region;
+        }
+    }
+
+    /**
+     * a tile on the board, by grid coordinates.
+     */
+    static class Tile {
+        final int x;
+        final int y;
+
+        // default constructor
+        Tile(int x, int y) {
+            this.x = x;
+            this.y = y;
+        }
+    }
+
+    /**
+     * the odds of one component: its # of hidden tiles, the bombs expected among them,
+     * and whether that is approximate.
+     */
+    static class Odds {
+        final int tiles;
+        final double expectedBombs;
+        final boolean approximate;
+
+        // default constructor
+        Odds(int tiles, double expectedBombs, boolean approximate) {
+            this.tiles = tiles;
+            this.expectedBombs = expectedBombs;
+            this.approximate = approximate;
+        }
+    }
+
+    /**
+     * a board to solve: its generation and what the player could see then.
+     */
+    private static class Request {
+        final int generation;
+        final int[] visible;
+
+        // default constructor
+        Request(int generation, int[] visible) {
+            this.generation = generation;
+            this.visible = visible;
+        }
+    }
+
+    /**
+     * a reason found by the solver: its tile, its numbers (null if there are too many),
+     * and the hidden tiles they talk about.
+     */
+    private static class Reason {
+        final int generation;
+        final int tile;
+        final ArrayList<Tile> reasons;
+        final int[] region;
+
+        // default constructor
+        Reason(int generation, int tile, ArrayList<Tile> reasons, int[] region) {
+            this.generation = generation;
+            this.tile = tile;
+            this.reasons = reasons;
+            this.region = region;
+        }
+    }
+
+    /**
+     * a solved board: for every hidden tile (by y * width + x), its kind, chance of a bomb,
+     * whether that needs the bomb count, and its component (-1 if unconstrained).
+     */
+    private static class Board {
+        final int generation;
+        final Kind[] kinds;
+        final double[] probabilities;
+        final boolean[] usesBombCount;
+        final int[] componentOf;
+        final ArrayList<Odds> breakdown;
+        boolean anyApproximate;
+        int freeTiles;
+        double freeBombs;
+
+        // default constructor
+        Board(int generation, int size) {
+            this.generation = generation;
+            this.kinds = new Kind[size];
+            this.probabilities = new double[size];
+            this.usesBombCount = new boolean[size];
+            this.componentOf = new int[size];
+            for (int i = 0; i < size; i += 1) {
+                this.componentOf[i] = -1;
+            }
+            this.breakdown = new ArrayList<>();
+        }
+    }
+
+    /**
+     * the constraints of a visible board: every revealed tile with hidden neighbors,
+     * its hidden neighbors, and for every hidden tile, the revealed tiles around it.
+     */
+    private class Constraints {
+        final int generation;
+        final int[] visible;
+        final ArrayList<Integer> list;
+        final HashMap<Integer, ArrayList<Integer>> hiddenAround;
+        final HashMap<Integer, ArrayList<Integer>> constraintsOn;
+        int hidden;
+
+        // default constructor
+        Constraints(int[] visible, int generation) {
+            this.generation = generation;
+            this.visible = visible;
+            this.list = new ArrayList<>();
+            this.hiddenAround = new HashMap<>();
+            this.constraintsOn = new HashMap<>();
+
+            for (int i = 0; i < visible.length; i += 1) {
+                if (visible[i] == -1) {
+                    this.hidden += 1;
+                    this.constraintsOn.putIfAbsent(i, new ArrayList<>());
+                    continue;
+                }
+                ArrayList<Integer> around = this.hiddenNeighbors(i);
+                if (!around.isEmpty()) {
+                    this.list.add(i);
+                    this.hiddenAround.put(i, around);
+                    for (int tile : around) {
+                        this.constraintsOn.computeIfAbsent(tile, k -> new ArrayList<>()).add(i);
+                    }
+                }
+            }
+        }
+
+        // returns the hidden tiles around a tile.
+        private ArrayList<Integer> hiddenNeighbors(int tile) {
+            ArrayList<Integer> around = new ArrayList<>();
+            int x = tile % MineHint.this.width;
+            int y = tile / MineHint.this.width;
+            for (int dy = -1; dy <= 1; dy += 1) {
+                for (int dx = -1; dx <= 1; dx += 1) {
+                    int ox = x + dx;
+                    int oy = y + dy;
+                    boolean onBoard = ox >= 0 && ox < MineHint.this.width && oy >= 0 && oy < MineHint.this.height;
+                    if ((dx != 0 || dy != 0) && onBoard && this.visible[oy * MineHint.this.width + ox] == -1) {
+                        around.add(oy * MineHint.this.width + ox);
+                    }
+                }
+            }
+            return around;
+        }
+    }
+
+    /**
+     * a solved component: its # of hidden tiles, its pieces (just one unless it was split up),
+     * whether it was, and if so, the tiles the numbers near them force (see forcedNearby).
+     */
+    private static class Component {
+        final int tiles;
+        final boolean approximate;
+        final ArrayList<Piece> pieces;
+        final HashMap<Integer, Kind> forcedNearby;
+
+        // default constructor
+        Component(int tiles, boolean approximate) {
+            this.tiles = tiles;
+            this.approximate = approximate;
+            this.pieces = new ArrayList<>();
+            this.forcedNearby = new HashMap<>();
+        }
+    }
+
+    /**
+     * a counted group of hidden tiles: the share of solutions with k bombs, the fewest and most
+     * bombs it can hold, and its sweep: before every tile, the (scaled) ways to reach every state
+     * by bombs so far, and every state's next state with no bomb and with a bomb (-1 if impossible).
+     */
+    private static class Piece {
+        final int[] tiles;
+        final double[] ways;
+        int lo;
+        int hi;
+        final double[][][] reach;
+        final int[][][] next;
+
+        // default constructor
+        Piece(int[] tiles) {
+            this.tiles = tiles;
+            this.ways = new double[tiles.length + 1];
+            this.reach = new double[tiles.length + 1][][];
+            this.next = new int[tiles.length][][];
+        }
+    }
+
+    /**
+     * a backtracking search over every placement of bombs on some tiles that satisfies some numbers.
+     * every tile has to be a hidden neighbor of one of the numbers. a number whose hidden neighbors
+     * are not all among the tiles only bounds them: at most its value, at least what the rest can't hold.
+     */
+    private abstract static class Search {
+        private int[] tiles;
+        // for every tile, the numbers (by position in cons) it is next to.
+        private ArrayList<ArrayList<Integer>> tileCons;
+        // for every number, the bombs it still needs, the tiles it has left, and its tiles elsewhere.
+        private int[] need;
+        private int[] left;
+        private int[] outside;
+        private boolean[] mined;
+        // the steps taken and allowed; a solution costs a step per tile.
+        private int steps;
+        private int maxSteps;
+
+        // default constructor
+        Search(int[] tiles, int[] cons, Constraints board, int maxSteps) {
+            this.tiles = tiles;
+            this.maxSteps = maxSteps;
+            this.mined = new boolean[tiles.length];
+            this.need = new int[cons.length];
+            this.left = new int[cons.length];
+            this.outside = new int[cons.length];
+
+            HashMap<Integer, Integer> position = new HashMap<>();
+            this.tileCons = new ArrayList<>();
+            for (int i = 0; i < tiles.length; i += 1) {
+                position.put(tiles[i], i);
+                this.tileCons.add(new ArrayList<>());
+            }
+            for (int j = 0; j < cons.length; j += 1) {
+                this.need[j] = board.visible[cons[j]];
+                for (int tile : board.hiddenAround.get(cons[j])) {
+                    Integer at = position.get(tile);
+                    if (at == null) {
+                        this.outside[j] += 1;
+                    }
+                    else {
+                        this.left[j] += 1;
+                        this.tileCons.get(at).add(j);
+                    }
+                }
+            }
+        }
+
+        // called with every solution and its # of bombs; returns false to stop the search.
+        abstract boolean visit(boolean[] mined, int count);
+
+        // runs the search; returns false if visit stopped it or it ran out of steps.
+        boolean run() {
+            return this.place(0, 0);
+        }
+
+        // tries both a bomb and no bomb on the tile at pos, pruning on the numbers it touches.
+        private boolean place(int pos, int count) {
+            this.steps += 1;
+            if (this.steps > this.maxSteps) {
+                return false;
+            }
+
+            // every number has run out of tiles, so every number is satisfied.
+            if (pos == this.tiles.length) {
+                this.steps += this.tiles.length;
+                return this.visit(this.mined, count);
+            }
+
+            for (int bomb = 0; bomb <= 1; bomb += 1) {
+                boolean possible = true;
+                for (int j : this.tileCons.get(pos)) {
+                    this.left[j] -= 1;
+                    this.need[j] -= bomb;
+                    possible = possible && this.need[j] >= 0 && this.need[j] <= this.left[j] + this.outside[j];
+                }
+
+                boolean keepGoing = true;
+                if (possible) {
+                    this.mined[pos] = bomb == 1;
+                    keepGoing = this.place(pos + 1, count + bomb);
+                }
+
+                for (int j : this.tileCons.get(pos)) {
+                    this.left[j] += 1;
+                    this.need[j] += bomb;
+                }
+                if (!keepGoing) {
+                    return false;
+                }
+            }
+            this.mined[pos] = false;
+            return true;
+        }
+    }
+}
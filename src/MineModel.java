@@ -1,5 +1,6 @@
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 
 
 /**
@@ -26,13 +27,29 @@ class MineModel {
     private int bombsFlagged;
     private int tilesClicked;
 
+    // whether or not to precompute the opening index on every reset.
+    private boolean useOpeningIndex;
+    // the opening index: which zero-region each tile belongs to (-1 if not a zero tile),
+    // and for every zero-region, the tiles (y * width + x) it reveals, numbered border included.
+    private int[] openingOf;
+    private ArrayList<ArrayList<Integer>> openings;
+
+    // the bombs (y * width + x) of a fixed board, placed on every reset. null if random.
+    private ArrayList<Integer> fixedBombs;
+
     // default constructor
     // produces a 2D arraylist of true/false, true if bomb, with # bombs as provided.
     // TODO: # bombs provided > than width * height?
     MineModel(int width, int height, int bombs) {
+        this(width, height, bombs, false);
+    }
+
+    // constructor that optionally precomputes the opening index (see buildOpeningIndex).
+    MineModel(int width, int height, int bombs, boolean useOpeningIndex) {
         this.width = width;
         this.height = height;
         this.numBombs = bombs;
+        this.useOpeningIndex = useOpeningIndex;
 
         if (this.numBombs > this.width * this.height) {
             throw new IllegalArgumentException("the # of bombs provided was greater than the # of board tiles");
@@ -43,6 +60,40 @@ class MineModel {
         this.resetBoard();
     }
 
+    // constructor for a fixed board, for testing (see fixBombs).
+    MineModel(String... rows) {
+        this(false, rows);
+    }
+
+    // constructor for a fixed board that optionally precomputes the opening index, for testing.
+    MineModel(boolean useOpeningIndex, String... rows) {
+        this.height = rows.length;
+        this.width = rows[0].replace(" ", "").length();
+        this.useOpeningIndex = useOpeningIndex;
+        this.fixBombs(rows);
+
+        this.resetBoard();
+    }
+
+    // fixes the bombs placed on every reset from now on, for testing.
+    // one string per row, as toString prints them: "o" for a bomb, "x" for none.
+    void fixBombs(String... rows) {
+        if (rows.length != this.height || rows[0].replace(" ", "").length() != this.width) {
+            throw new IllegalArgumentException("the rows provided do not match the size of the board");
+        }
+
+        this.fixedBombs = new ArrayList<>();
+        for (int y = 0; y < this.height; y += 1) {
+            String row = rows[y].replace(" ", "");
+            for (int x = 0; x < this.width; x += 1) {
+                if (row.charAt(x) == 'o') {
+                    this.fixedBombs.add(y * this.width + x);
+                }
+            }
+        }
+        this.numBombs = this.fixedBombs.size();
+    }
+
     // resets the board state
     public void resetBoard() {
         this.tilesClicked = 0;
@@ -63,11 +114,17 @@ class MineModel {
         // add the bombs to the grid.
 
         // create a list of all the possible locations and shuffle them.
+        // (a fixed board just uses its own bombs.)
         ArrayList<Integer> bombChoice = new ArrayList<>();
-        for (int i = 0; i < (width * height); i += 1) {
-            bombChoice.add(i);
+        if (this.fixedBombs != null) {
+            bombChoice.addAll(this.fixedBombs);
+        }
+        else {
+            for (int i = 0; i < (width * height); i += 1) {
+                bombChoice.add(i);
+            }
+            Collections.shuffle(bombChoice);
         }
-        Collections.shuffle(bombChoice);
 
         // choose the first bombs indices, and set them to bombs.
         for (int i = 0; i < this.numBombs; i += 1) {
@@ -112,6 +169,15 @@ class MineModel {
             this.flagged.add(curRow);
         }
 
+        // precompute the zero-regions, if asked to.
+        if (this.useOpeningIndex) {
+            this.buildOpeningIndex();
+        }
+        else {
+            this.openingOf = null;
+            this.openings = null;
+        }
+
         // TODO: for testing purposes. remove later.
         System.out.println(this);
     }
@@ -202,6 +268,149 @@ class MineModel {
         return bombs;
     }
 
+    // builds the opening index in linear time.
+    // one row-major pass unions every zero tile with its already-visited zero neighbors
+    // (left, up-left, up, up-right), then a second pass gathers each region's tiles,
+    // followed by the numbered tiles bordering it.
+    private void buildOpeningIndex() {
+        int size = this.width * this.height;
+        int[] counts = new int[size];
+        int[] parent = new int[size];
+
+        // union pass.
+        for (int i = 0; i < size; i += 1) {
+            int x = i % this.width;
+            int y = i / this.width;
+            parent[i] = i;
+
+            if (this.isBombAt(x, y)) {
+                counts[i] = -1;
+                continue;
+            }
+            counts[i] = this.numNeighboringBombs(x, y);
+
+            if (counts[i] == 0) {
+                if (x > 0 && counts[i - 1] == 0) {
+                    this.union(parent, i, i - 1);
+                }
+                if (y > 0) {
+                    int above = i - this.width;
+                    if (x > 0 && counts[above - 1] == 0) {
+                        this.union(parent, i, above - 1);
+                    }
+                    if (counts[above] == 0) {
+                        this.union(parent, i, above);
+                    }
+                    if (x < this.width - 1 && counts[above + 1] == 0) {
+                        this.union(parent, i, above + 1);
+                    }
+                }
+            }
+        }
+
+        // gather pass: label the zero-regions and collect their tiles.
+        this.openingOf = new int[size];
+        this.openings = new ArrayList<>();
+        int[] label = new int[size];
+        for (int i = 0; i < size; i += 1) {
+            label[i] = -1;
+        }
+        for (int i = 0; i < size; i += 1) {
+            this.openingOf[i] = -1;
+            if (counts[i] == 0) {
+                int root = this.find(parent, i);
+                if (label[root] == -1) {
+                    label[root] = this.openings.size();
+                    this.openings.add(new ArrayList<>());
+                }
+                this.openingOf[i] = label[root];
+                this.openings.get(label[root]).add(i);
+            }
+        }
+
+        // border pass: every numbered tile joins each distinct region it touches.
+        int[] touched = new int[8];
+        for (int i = 0; i < size; i += 1) {
+            if (counts[i] <= 0) {
+                continue;
+            }
+            int x = i % this.width;
+            int y = i / this.width;
+            int numTouched = 0;
+
+            for (int dy = -1; dy <= 1; dy += 1) {
+                for (int dx = -1; dx <= 1; dx += 1) {
+                    if (!this.onBoard(x + dx, y + dy)) {
+                        continue;
+                    }
+                    int region = this.openingOf[(y + dy) * this.width + (x + dx)];
+                    if (region == -1) {
+                        continue;
+                    }
+                    // only add ourselves once per region.
+                    boolean seen = false;
+                    for (int j = 0; j < numTouched; j += 1) {
+                        seen = seen || touched[j] == region;
+                    }
+                    if (!seen) {
+                        touched[numTouched] = region;
+                        numTouched += 1;
+                        this.openings.get(region).add(i);
+                    }
+                }
+            }
+        }
+    }
+
+    // finds the root of a tile in the union-find, halving the path as it goes.
+    private int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    // joins the sets of the two provided tiles in the union-find.
+    private void union(int[] parent, int a, int b) {
+        parent[this.find(parent, a)] = this.find(parent, b);
+    }
+
+    // returns if the opening index was precomputed for this board.
+    public boolean hasOpeningIndex() {
+        return this.openings != null;
+    }
+
+    // returns the tiles (y * width + x) revealed by clicking the zero tile at (x, y), read-only,
+    // or null if there is no opening index or (x, y) is not a zero tile.
+    public List<Integer> openingAt(int x, int y) {
+        if (!this.hasOpeningIndex() || !this.onBoard(x, y)) {
+            return null;
+        }
+        int region = this.openingOf[y * this.width + x];
+        if (region == -1) {
+            return null;
+        }
+        return Collections.unmodifiableList(this.openings.get(region));
+    }
+
+    // returns what the player can see: for every tile (y * width + x),
+    // its # of neighboring bombs if clicked, or -1 if not.
+    public int[] visibleSnapshot() {
+        int[] visible = new int[this.width * this.height];
+        for (int y = 0; y < this.height; y += 1) {
+            for (int x = 0; x < this.width; x += 1) {
+                if (this.hasBeenClicked(x, y)) {
+                    visible[y * this.width + x] = this.numNeighboringBombs(x, y);
+                }
+                else {
+                    visible[y * this.width + x] = -1;
+                }
+            }
+        }
+        return visible;
+    }
+
     // returns if the provided coordinates are on the board
     // similar to a .hasNext() of a .next()
     public boolean onBoard(int x, int y) {
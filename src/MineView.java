@@ -14,6 +14,8 @@ import java.awt.*;
 class MineView {
     // the width/height of one tile (square)
     static final int TILE_SIZE = 20;
+    // the height of the status row under the grid, where the hints go.
+    static final int STATUS_HEIGHT = TILE_SIZE;
 
     // the WorldScene representing the view.
     private WorldScene view;
@@ -25,7 +27,7 @@ class MineView {
     MineView(int width, int height) {
         this.width = width;
         this.height = height;
-        this.view = new WorldScene(this.width * TILE_SIZE, this.height * TILE_SIZE);
+        this.view = new WorldScene(this.width * TILE_SIZE, this.height * TILE_SIZE + STATUS_HEIGHT);
 
         // fill the grid with blank tiles
         for (int y = 0; y < this.height; y += 1) {
@@ -33,6 +35,7 @@ class MineView {
                 this.drawBlank(x, y);
             }
         }
+        this.drawNoHint();
     }
 
     /*
@@ -140,14 +143,14 @@ class MineView {
 
     // draws the end message
     public void drawEnd() {
-        this.view = new WorldScene(this.width * TILE_SIZE, this.height * TILE_SIZE);
+        this.view = new WorldScene(this.width * TILE_SIZE, this.height * TILE_SIZE + STATUS_HEIGHT);
         this.view.placeImageXY(
                 new RectangleImage(
                         this.width * TILE_SIZE,
-                        this.height * TILE_SIZE,
+                        this.height * TILE_SIZE + STATUS_HEIGHT,
                         OutlineMode.SOLID,
                         Color.BLACK),
-                this.width * TILE_SIZE / 2, this.height * TILE_SIZE / 2);
+                this.width * TILE_SIZE / 2, (this.height * TILE_SIZE + STATUS_HEIGHT) / 2);
     }
 
     // draws a flag at the provided grid posn.
@@ -172,6 +175,39 @@ class MineView {
         this.view.placeImageXY(text.overlayImages(back), TILE_SIZE, TILE_SIZE);
     }
 
+    // draws the hint for the hovered tile in the status row: the % chance of a bomb and why,
+    // on green if it is forced safe, on red if it is forced to be a bomb.
+    public void drawHint(int percent, boolean isForced, String detail) {
+        WorldImage text = new TextImage(percent + "% " + detail, 12, Color.YELLOW);
+        WorldImage back;
+        if (isForced && percent == 0) {
+            back = new RectangleImage(this.width * TILE_SIZE, STATUS_HEIGHT, OutlineMode.SOLID, Color.GREEN);
+        }
+        else if (isForced) {
+            back = new RectangleImage(this.width * TILE_SIZE, STATUS_HEIGHT, OutlineMode.SOLID, Color.RED);
+        }
+        else {
+            back = new RectangleImage(this.width * TILE_SIZE, STATUS_HEIGHT, OutlineMode.SOLID, Color.DARK_GRAY);
+        }
+        this.addToStatus(text.overlayImages(back));
+    }
+
+    // empties the status row, for when there is nothing (yet) to say about the hovered tile.
+    public void drawNoHint() {
+        this.addToStatus(new RectangleImage(this.width * TILE_SIZE, STATUS_HEIGHT, OutlineMode.SOLID, Color.DARK_GRAY));
+    }
+
+    // places a provided image over the whole status row, under the grid.
+    private void addToStatus(WorldImage img) {
+        this.view.placeImageXY(img, this.width * TILE_SIZE / 2, this.height * TILE_SIZE + STATUS_HEIGHT / 2);
+    }
+
+    // highlights a number that forces the hovered tile, at the provided grid posn.
+    public void drawReason(int x, int y) {
+        WorldImage frame = new RectangleImage(TILE_SIZE - 2, TILE_SIZE - 2, OutlineMode.OUTLINE, Color.YELLOW);
+        this.addToView(frame, x, y);
+    }
+
     // resets the view.
     public void resetView(int bombCount, int tileCount) {
         for (int y = 0; y < height; y += 1) {
@@ -179,8 +215,9 @@ class MineView {
                 this.drawBlank(x, y);
             }
         }
-        // draws the new bombCount.
+        // draws the new bombCount, and no hint yet.
         this.drawBombCount(bombCount, tileCount, false);
+        this.drawNoHint();
     }
 
     // draws an incorrect bomb marker.